@@ -3,16 +3,21 @@ import java.net.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ServidorEcoColeta
  * - Mantém os pontos de coleta em memória (ConcurrentHashMap).
  * - Aceita múltiplas conexões (thread por cliente).
  * - Protocolo simples baseado em linhas de texto (com '|' como separador).
+ * - Mantém contadores por tipo de resíduo (LongAdder), ajustados em ADD/UPDATE,
+ *   para que FACETS e COUNT não precisem percorrer todos os pontos.
  *
  * Comandos suportados (cliente -> servidor):
  *  - LIST
  *  - FILTER|tipo
+ *  - FACETS                                   (quantidade de pontos por tipo)
+ *  - COUNT|tipo                               (quantidade de pontos que aceitam o tipo)
  *  - LOGIN|usuario|senha
  *  - ADD|nome|endereco|tipo1,tipo2|contato    (admin somente)
  *  - UPDATE|id|nome|endereco|tipo1,tipo2|contato (admin somente)
@@ -20,7 +25,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * Respostas do servidor: múltiplas linhas terminadas por "END".
  * Primeira linha costuma ser OK, AUTH_OK, AUTH_FAIL ou ERROR|mensagem
- * Linhas seguintes (quando houver dados) contêm os pontos no formato do protocolo.
+ * Linhas seguintes (quando houver dados) contêm os pontos no formato do protocolo;
+ * em FACETS e COUNT contêm linhas no formato tipo|quantidade.
  */
 public class ServidorEcoColeta {
 
@@ -32,6 +38,8 @@ public class ServidorEcoColeta {
     // Armazenamento em memória
     private final ConcurrentMap<Integer, PontoColeta> pontos = new ConcurrentHashMap<>();
     private final AtomicInteger nextId = new AtomicInteger(1);
+    // Quantidade de pontos que aceitam cada tipo (mantida incrementalmente em ADD/UPDATE)
+    private final ConcurrentMap<String, LongAdder> contagemPorTipo = new ConcurrentHashMap<>();
 
     public static void main(String[] args) {
         ServidorEcoColeta servidor = new ServidorEcoColeta();
@@ -70,9 +78,24 @@ public class ServidorEcoColeta {
     private void addPontoInterno(String nome, String endereco, Set<String> tipos, String contato) {
         int id = nextId.getAndIncrement();
         PontoColeta p = new PontoColeta(id, nome, endereco, tipos, contato);
+        ajustarContagens(Collections.emptySet(), p.getTipos());
         pontos.put(id, p);
     }
 
+    // Atualiza os contadores por tipo a partir dos tipos antes/depois de uma alteração
+    private void ajustarContagens(Set<String> antes, Set<String> depois) {
+        for (String tipo : depois) {
+            if (!antes.contains(tipo)) {
+                contagemPorTipo.computeIfAbsent(tipo, k -> new LongAdder()).increment();
+            }
+        }
+        for (String tipo : antes) {
+            if (!depois.contains(tipo)) {
+                contagemPorTipo.computeIfAbsent(tipo, k -> new LongAdder()).decrement();
+            }
+        }
+    }
+
     // Implementação do handler por cliente
     private class ClientHandler implements Runnable {
         private final Socket socket;
@@ -106,6 +129,12 @@ public class ServidorEcoColeta {
                         case "FILTER":
                             handleFilter(parts, out);
                             break;
+                        case "FACETS":
+                            handleFacets(out);
+                            break;
+                        case "COUNT":
+                            handleCount(parts, out);
+                            break;
                         case "LOGIN":
                             handleLogin(parts, out);
                             break;
@@ -154,6 +183,32 @@ public class ServidorEcoColeta {
             out.println("END");
         }
 
+        // Formato: OK, seguido de uma linha tipo|quantidade para cada tipo com pontos
+        private void handleFacets(PrintWriter out) {
+            out.println("OK");
+            for (Map.Entry<String, LongAdder> e : new TreeMap<>(contagemPorTipo).entrySet()) {
+                long total = e.getValue().sum();
+                if (total > 0) {
+                    out.println(e.getKey() + "|" + total);
+                }
+            }
+            out.println("END");
+        }
+
+        private void handleCount(String[] parts, PrintWriter out) {
+            if (parts.length < 2 || parts[1].trim().isEmpty()) {
+                out.println("ERROR|Tipo para contagem ausente");
+                out.println("END");
+                return;
+            }
+            String tipo = parts[1].trim().toLowerCase();
+            LongAdder contador = contagemPorTipo.get(tipo);
+            long total = contador == null ? 0 : contador.sum();
+            out.println("OK");
+            out.println(tipo + "|" + total);
+            out.println("END");
+        }
+
         private void handleLogin(String[] parts, PrintWriter out) {
             if (parts.length < 3) {
                 out.println("ERROR|Formato LOGIN incorreto. Uso: LOGIN|usuario|senha");
@@ -192,6 +247,9 @@ public class ServidorEcoColeta {
                 Set<String> tipos = parseTipos(tiposStr);
                 int id = nextId.getAndIncrement();
                 PontoColeta p = new PontoColeta(id, nome, endereco, tipos, contato);
+                // contadores ajustados antes de publicar o ponto: um UPDATE concorrente
+                // só enxerga o ponto depois, então sempre parte dos tipos originais
+                ajustarContagens(Collections.emptySet(), p.getTipos());
                 pontos.put(id, p);
                 out.println("ADD_OK|" + id);
                 out.println("END");
@@ -226,10 +284,15 @@ public class ServidorEcoColeta {
                 String tiposStr = parts[4];
                 String contato = parts[5];
 
-                existente.setNome(nome);
-                existente.setEndereco(endereco);
-                existente.setTipos(parseTipos(tiposStr));
-                existente.setContato(contato);
+                // sincroniza no ponto para que UPDATEs concorrentes vejam o "antes" correto
+                synchronized (existente) {
+                    Set<String> tiposAntes = new HashSet<>(existente.getTipos());
+                    existente.setNome(nome);
+                    existente.setEndereco(endereco);
+                    existente.setTipos(parseTipos(tiposStr));
+                    existente.setContato(contato);
+                    ajustarContagens(tiposAntes, existente.getTipos());
+                }
 
                 out.println("UPDATE_OK");
                 out.println("END");